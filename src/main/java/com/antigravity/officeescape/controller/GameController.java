@@ -3,6 +3,7 @@ package com.antigravity.officeescape.controller;
 import com.antigravity.officeescape.model.GameState;
 import com.antigravity.officeescape.model.Player;
 import com.antigravity.officeescape.model.Room;
+import com.antigravity.officeescape.service.GameRecorder;
 import com.antigravity.officeescape.service.RoomManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +28,7 @@ public class GameController {
     private final RoomManager roomManager;
     private final SimpMessagingTemplate messagingTemplate;
     private final LeaderboardRepository leaderboardRepository;
+    private final GameRecorder gameRecorder;
 
     @GetMapping("/api/leaderboard")
     @ResponseBody
@@ -119,6 +121,7 @@ public class GameController {
                 p.setFloor(0);
             }
 
+            room.setRecordingId(gameRecorder.start(room));
             room.setGameState(GameState.PLAYING);
             messagingTemplate.convertAndSend("/topic/room/" + room.getRoomId(), room);
         }
@@ -0,0 +1,78 @@
+package com.antigravity.officeescape.controller;
+
+import com.antigravity.officeescape.service.GameRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@Controller
+@RequiredArgsConstructor
+public class RecordingController {
+
+    // Tomcat request attributes for handing a file to the connector's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long CHUNK_SIZE = 64 * 1024;
+
+    private final GameRecorder gameRecorder;
+
+    @GetMapping("/api/recordings")
+    @ResponseBody
+    public List<String> listRecordings() {
+        return gameRecorder.listRecordings();
+    }
+
+    @GetMapping("/api/recordings/{recordingId}")
+    public void streamRecording(@PathVariable String recordingId, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        File file = gameRecorder.getRecording(recordingId);
+        if (file == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        long length = file.length();
+        // The body is the raw gzip file, decompressed by the client rather than via Content-Encoding
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(length);
+        // Finished recordings never change
+        response.setHeader("Cache-Control", "public, max-age=31536000, immutable");
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Let the connector send the file straight from the page cache after we return
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return;
+        }
+
+        // Fallback: transfer in fixed chunks so memory stays constant regardless of file size
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, Math.min(CHUNK_SIZE, length - position), target);
+                out.flush();
+            }
+        }
+    }
+}
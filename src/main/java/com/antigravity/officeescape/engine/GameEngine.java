@@ -2,6 +2,7 @@ package com.antigravity.officeescape.engine;
 
 import com.antigravity.officeescape.model.*;
 import com.antigravity.officeescape.repository.LeaderboardRepository;
+import com.antigravity.officeescape.service.GameRecorder;
 import com.antigravity.officeescape.service.RoomManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +23,7 @@ public class GameEngine {
     private final RoomManager roomManager;
     private final SimpMessagingTemplate messagingTemplate;
     private final LeaderboardRepository leaderboardRepository;
+    private final GameRecorder gameRecorder;
 
     // Physics constants
     private static final double GRAVITY = 0.8;
@@ -81,6 +83,7 @@ public class GameEngine {
 
         // 4. Broadcast State
         messagingTemplate.convertAndSend("/topic/room/" + room.getRoomId(), room);
+        gameRecorder.recordTick(room);
 
         // 5. Check Game Over
         if (allDead && !room.getPlayers().isEmpty()) {
@@ -257,6 +260,7 @@ public class GameEngine {
             Leaderboard entry = new Leaderboard(p.getName(), p.getFloor());
             leaderboardRepository.save(entry);
         }
+        gameRecorder.finish(room.getRoomId());
         messagingTemplate.convertAndSend("/topic/room/" + room.getRoomId(), room);
 
         // Schedule cleanup? Or let RoomManager handle.
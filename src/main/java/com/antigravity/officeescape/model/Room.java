@@ -24,6 +24,9 @@ public class Room {
     private int difficultyLevel = 1;
     private double scrollOffset = 0;
 
+    // Id of the recording for the current/last game, used by clients to request a replay
+    private String recordingId;
+
     public Room(String roomId) {
         this.roomId = roomId;
     }
@@ -0,0 +1,444 @@
+package com.antigravity.officeescape.service;
+
+import com.antigravity.officeescape.model.Item;
+import com.antigravity.officeescape.model.Player;
+import com.antigravity.officeescape.model.Room;
+import com.antigravity.officeescape.model.Stair;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records each room's tick stream to a gzip-compressed, append-only binary file.
+ *
+ * Frames are encoded on the game loop thread and handed to a single background
+ * writer through a bounded queue, so the game loop never touches the disk and
+ * memory stays constant however long a game lasts. Files are written as
+ * {@code <id>.rec.part} and renamed to {@code <id>.rec} once the writer has
+ * caught up with the game's last frame. Leftover part files from a crash are
+ * deleted on startup.
+ *
+ * File layout (big-endian, inside the gzip stream):
+ * header: int magic "OERC", short version, long startedAt
+ * 'P' record: byte playerIndex, short nameLength, UTF-8 name bytes
+ * 'T' record: int tick, float scrollOffset,
+ * byte playerCount, per player: byte index, float x, y, width, height, byte hp, short floor, byte flags
+ * short stairCount, per stair: float x, y, width, byte type
+ * short itemCount, per item: float x, y, width, height, byte type
+ * 'E' record: end of recording
+ */
+@Service
+@Slf4j
+public class GameRecorder {
+
+    public static final String FILE_SUFFIX = ".rec";
+    private static final String PART_SUFFIX = ".part";
+    private static final Pattern RECORDING_ID = Pattern.compile("[A-Z0-9]+-[0-9]+");
+
+    private static final int MAGIC = 0x4F455243; // "OERC"
+    private static final short VERSION = 1;
+    private static final byte RECORD_PLAYER = 'P';
+    private static final byte RECORD_TICK = 'T';
+    private static final byte RECORD_END = 'E';
+
+    private static final byte FLAG_DEAD = 1;
+    private static final byte FLAG_LEFT = 2;
+    private static final byte FLAG_RIGHT = 4;
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final BlockingQueue<Frame> queue;
+    // Unbounded but holds at most one entry per finished game, so closing never blocks or gets dropped
+    private final Queue<CloseRequest> closeRequests = new ConcurrentLinkedQueue<>();
+    // Map roomId -> active recording, only ticks for rooms in here are recorded
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @Autowired
+    public GameRecorder(@Value("${game.recording.dir:recordings}") String directory) {
+        this(directory, QUEUE_CAPACITY);
+    }
+
+    // Visible for tests, which use a tiny queue to exercise the drop paths
+    GameRecorder(String directory, int queueCapacity) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+        deleteStaleParts();
+        running = true;
+        writerThread = new Thread(this::writeLoop, "game-recorder");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (String roomId : new ArrayList<>(sessions.keySet())) {
+            finish(roomId);
+        }
+        running = false;
+        writerThread.join(5000);
+    }
+
+    /**
+     * Starts a new recording for the room and returns its id, or null if the recording could not be started.
+     */
+    public String start(Room room) {
+        long startedAt = System.currentTimeMillis();
+        Session session = new Session(room.getRoomId() + "-" + startedAt);
+        try {
+            DataOutputStream out = session.out();
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(startedAt);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen for in-memory buffers
+        }
+        if (!enqueue(session, new Frame(session.id, FrameType.OPEN, session.drain())))
+            return null; // Without its header the file is useless, so don't record this game
+        sessions.put(room.getRoomId(), session);
+        return session.id;
+    }
+
+    /**
+     * Appends the room's current state. Called from the game loop after each tick.
+     */
+    public void recordTick(Room room) {
+        Session session = sessions.get(room.getRoomId());
+        if (session == null)
+            return;
+
+        // Snapshot so a player joining mid-tick can't appear in a tick record without a declaration
+        List<Player> players = new ArrayList<>(room.getPlayers().values());
+        Map<String, Integer> declared = new HashMap<>();
+        try {
+            DataOutputStream out = session.out();
+
+            // Declare players we have not seen yet (e.g. joined mid-game). They only count as
+            // declared once this frame is queued, so a dropped frame re-declares them next tick.
+            for (Player p : players) {
+                if (!session.playerIndex.containsKey(p.getSessionId())
+                        && !declared.containsKey(p.getSessionId())) {
+                    int index = session.playerIndex.size() + declared.size();
+                    declared.put(p.getSessionId(), index);
+                    byte[] name = (p.getName() == null ? "" : p.getName()).getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(RECORD_PLAYER);
+                    out.writeByte(index);
+                    out.writeShort(name.length);
+                    out.write(name);
+                }
+            }
+
+            out.writeByte(RECORD_TICK);
+            out.writeInt(session.tick++);
+            out.writeFloat((float) room.getScrollOffset());
+
+            out.writeByte(players.size());
+            for (Player p : players) {
+                int flags = 0;
+                if (p.isDead())
+                    flags |= FLAG_DEAD;
+                if (p.isMovingLeft())
+                    flags |= FLAG_LEFT;
+                if (p.isMovingRight())
+                    flags |= FLAG_RIGHT;
+
+                Integer index = session.playerIndex.get(p.getSessionId());
+                out.writeByte(index != null ? index : declared.get(p.getSessionId()));
+                out.writeFloat((float) p.getX());
+                out.writeFloat((float) p.getY());
+                out.writeFloat((float) p.getWidth());
+                out.writeFloat((float) p.getHeight());
+                out.writeByte(Math.max(0, p.getHp()));
+                out.writeShort(p.getFloor());
+                out.writeByte(flags);
+            }
+
+            List<Stair> stairs = room.getStairs();
+            out.writeShort(stairs.size());
+            for (Stair s : stairs) {
+                out.writeFloat((float) s.getX());
+                out.writeFloat((float) s.getY());
+                out.writeFloat((float) s.getWidth());
+                out.writeByte(s.getType().ordinal());
+            }
+
+            List<Item> items = room.getItems();
+            out.writeShort(items.size());
+            for (Item i : items) {
+                out.writeFloat((float) i.getX());
+                out.writeFloat((float) i.getY());
+                out.writeFloat((float) i.getWidth());
+                out.writeFloat((float) i.getHeight());
+                out.writeByte(i.getType().ordinal());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        if (enqueue(session, new Frame(session.id, FrameType.DATA, session.drain()))) {
+            session.playerIndex.putAll(declared);
+        }
+    }
+
+    /**
+     * Closes the room's recording. The file becomes available once the writer has flushed it.
+     * Never blocks, since it is called from the game loop.
+     */
+    public void finish(String roomId) {
+        Session session = sessions.remove(roomId);
+        if (session == null)
+            return;
+
+        if (session.dropped > 0) {
+            log.warn("Recording {} finished with {} dropped frames", session.id, session.dropped);
+        }
+        closeRequests.add(new CloseRequest(session.id, session.queued));
+    }
+
+    /**
+     * Returns the finished recording file, or null if the id is unknown or still being written.
+     */
+    public File getRecording(String recordingId) {
+        if (recordingId == null || !RECORDING_ID.matcher(recordingId).matches())
+            return null;
+        File file = directory.resolve(recordingId + FILE_SUFFIX).toFile();
+        return file.isFile() ? file : null;
+    }
+
+    public List<String> listRecordings() {
+        List<String> ids = new ArrayList<>();
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files != null) {
+            for (File f : files) {
+                ids.add(f.getName().substring(0, f.getName().length() - FILE_SUFFIX.length()));
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    // Frames waiting for the writer, for tests
+    int pendingFrames() {
+        return queue.size();
+    }
+
+    private boolean enqueue(Session session, Frame frame) {
+        // Never block the game loop; if the disk can't keep up we lose frames, not ticks
+        if (!queue.offer(frame)) {
+            // Log only the first drop; finish() reports the total
+            if (session.dropped++ == 0) {
+                log.warn("Recording queue full, dropping frames for {}", frame.recordingId);
+            }
+            return false;
+        }
+        session.queued++;
+        return true;
+    }
+
+    private void writeLoop() {
+        // Owned by the writer thread only
+        Map<String, OutputStream> open = new HashMap<>();
+        // Map recordingId -> frames taken off the queue, so a close waits for the game's last frame
+        Map<String, Integer> processed = new HashMap<>();
+        List<CloseRequest> pendingCloses = new ArrayList<>();
+
+        while (running || !queue.isEmpty()) {
+            Frame frame;
+            try {
+                frame = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (frame != null) {
+                processed.merge(frame.recordingId, 1, Integer::sum);
+                write(open, frame);
+            }
+
+            CloseRequest request;
+            while ((request = closeRequests.poll()) != null) {
+                pendingCloses.add(request);
+            }
+            Iterator<CloseRequest> it = pendingCloses.iterator();
+            while (it.hasNext()) {
+                CloseRequest close = it.next();
+                if (processed.getOrDefault(close.recordingId, 0) >= close.frameCount) {
+                    it.remove();
+                    processed.remove(close.recordingId);
+                    close(open, close.recordingId);
+                }
+            }
+        }
+
+        // The queue is drained, so every remaining close has all of its frames
+        CloseRequest request;
+        while ((request = closeRequests.poll()) != null) {
+            pendingCloses.add(request);
+        }
+        for (CloseRequest close : pendingCloses) {
+            close(open, close.recordingId);
+        }
+        // Anything still open was never finished; its part file is cleaned up on next startup
+        for (OutputStream out : open.values()) {
+            closeQuietly(out);
+        }
+    }
+
+    private void write(Map<String, OutputStream> open, Frame frame) {
+        try {
+            OutputStream out = open.get(frame.recordingId);
+            if (frame.type == FrameType.OPEN) {
+                out = new GZIPOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(partPath(frame.recordingId))), 8192);
+                open.put(frame.recordingId, out);
+            }
+            if (out == null)
+                return; // Write failed earlier, skip the rest of this recording
+
+            out.write(frame.data);
+        } catch (IOException e) {
+            log.error("Failed to write recording {}, skipping the rest of it", frame.recordingId, e);
+            closeQuietly(open.remove(frame.recordingId));
+            deleteQuietly(partPath(frame.recordingId));
+        }
+    }
+
+    private void close(Map<String, OutputStream> open, String recordingId) {
+        OutputStream out = open.remove(recordingId);
+        if (out == null)
+            return;
+
+        try {
+            out.write(RECORD_END);
+            out.close();
+            Files.move(partPath(recordingId), directory.resolve(recordingId + FILE_SUFFIX),
+                    StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved recording {}", recordingId);
+        } catch (IOException e) {
+            log.error("Failed to finish recording {}", recordingId, e);
+            closeQuietly(out);
+            deleteQuietly(partPath(recordingId));
+        }
+    }
+
+    private void deleteStaleParts() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> f.getFileName().toString().endsWith(FILE_SUFFIX + PART_SUFFIX))
+                    .forEach(f -> {
+                        log.warn("Deleting unfinished recording {}", f.getFileName());
+                        deleteQuietly(f);
+                    });
+        }
+    }
+
+    private Path partPath(String recordingId) {
+        return directory.resolve(recordingId + FILE_SUFFIX + PART_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", path, e);
+        }
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        if (out == null)
+            return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private enum FrameType {
+        OPEN,
+        DATA
+    }
+
+    private static class Frame {
+        private final String recordingId;
+        private final FrameType type;
+        private final byte[] data;
+
+        Frame(String recordingId, FrameType type, byte[] data) {
+            this.recordingId = recordingId;
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    private static class CloseRequest {
+        private final String recordingId;
+        // Frames successfully queued for this recording before it was closed
+        private final int frameCount;
+
+        CloseRequest(String recordingId, int frameCount) {
+            this.recordingId = recordingId;
+            this.frameCount = frameCount;
+        }
+    }
+
+    // Per-room encoder state, touched only by the thread that ticks the room
+    private static class Session {
+        private final String id;
+        // Map sessionId -> compact player index used in the file
+        private final Map<String, Integer> playerIndex = new HashMap<>();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        private int tick;
+        private int queued;
+        private int dropped;
+
+        Session(String id) {
+            this.id = id;
+        }
+
+        DataOutputStream out() {
+            return out;
+        }
+
+        byte[] drain() {
+            byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+            return bytes;
+        }
+    }
+}
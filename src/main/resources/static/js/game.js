@@ -3,6 +3,9 @@ let roomId = null;
 let playerName = null;
 let isReady = false;
 let gameState = null;
+let lastRecordingId = null;
+let replaying = false;
+let replayCount = 0; // Lets a stopped replay's loops notice that a newer one has started
 
 // Generate a random ID for this client
 const myClientId = 'client-' + Math.random().toString(36).substr(2, 9);
@@ -177,6 +180,9 @@ function onGameStateUpdate(payload) {
             });
         html += "</ul>";
         document.getElementById('final-stats').innerHTML = html;
+        lastRecordingId = room.recordingId;
+        setReplayStatus('');
+        document.getElementById('replay-btn').classList.toggle('hidden', !lastRecordingId);
         stompClient.disconnect();
     }
 }
@@ -208,7 +214,7 @@ function startGame() {
 const keys = { left: false, right: false };
 
 window.addEventListener('keydown', (e) => {
-    if (gameState && gameState.gameState === 'PLAYING') {
+    if (!replaying && gameState && gameState.gameState === 'PLAYING') {
         if (e.key === 'ArrowLeft' && !keys.left) {
             keys.left = true;
             sendMove();
@@ -221,7 +227,7 @@ window.addEventListener('keydown', (e) => {
 });
 
 window.addEventListener('keyup', (e) => {
-    if (gameState && gameState.gameState === 'PLAYING') {
+    if (!replaying && gameState && gameState.gameState === 'PLAYING') {
         if (e.key === 'ArrowLeft') {
             keys.left = false;
             sendMove();
@@ -513,6 +519,7 @@ function fetchLeaderboard() {
 }
 
 function backToLobby() {
+    replaying = false;
     roomId = null;
     isReady = false;
     gameState = null;
@@ -525,3 +532,203 @@ function backToLobby() {
         fetchLeaderboard();
     });
 }
+
+// Replay Playback
+// Must match GameRecorder on the backend
+const RECORDING_MAGIC = 0x4F455243;
+const STAIR_TYPES = ['NORMAL', 'SPIKE', 'CONVEYOR_LEFT', 'CONVEYOR_RIGHT'];
+const ITEM_TYPES = ['GROWTH_POTION'];
+const REPLAY_TICK_MS = 50; // Same as server tick rate
+const REPLAY_BUFFER_FRAMES = 200; // Stop reading the stream when this many frames are waiting
+const REPLAY_FETCH_ATTEMPTS = 10; // The file appears shortly after the game ends, so retry 404s briefly
+const REPLAY_RETRY_MS = 300;
+
+async function watchReplay() {
+    if (!lastRecordingId || replaying) return;
+    setReplayStatus('');
+
+    // Open the stream before leaving the end screen so a failure here leaves the player where they were
+    let reader;
+    try {
+        let response;
+        for (let attempt = 1; ; attempt++) {
+            response = await fetch('/api/recordings/' + encodeURIComponent(lastRecordingId));
+            if (response.status !== 404 || attempt >= REPLAY_FETCH_ATTEMPTS) break;
+            await new Promise(r => setTimeout(r, REPLAY_RETRY_MS));
+        }
+        if (!response.ok) throw new Error("HTTP " + response.status);
+        reader = response.body.pipeThrough(new DecompressionStream('gzip')).getReader();
+    } catch (err) {
+        console.error("Recording not available", err);
+        setReplayStatus('Replay is not available.');
+        return;
+    }
+
+    if (replaying) {
+        // Started again while we were waiting for the file
+        reader.cancel().catch(() => { });
+        return;
+    }
+    replaying = true;
+    const replayId = ++replayCount;
+    const active = () => replaying && replayCount === replayId;
+    showScreen('game-screen');
+    document.getElementById('stop-replay-btn').classList.remove('hidden');
+
+    const names = [];
+    const frames = [];
+    let done = false;
+
+    const timer = setInterval(() => {
+        if (!active()) {
+            clearInterval(timer);
+            return;
+        }
+        const frame = frames.shift();
+        if (frame) {
+            gameState = frame;
+            const me = Object.values(frame.players).find(p => p.name === playerName);
+            if (me) {
+                document.getElementById('health-display').innerText = "♥ " + me.hp;
+                document.getElementById('floor-display').innerText = "B" + me.floor;
+            }
+        } else if (done) {
+            clearInterval(timer);
+            stopReplay();
+        }
+    }, REPLAY_TICK_MS);
+
+    let buffer = new Uint8Array(0);
+    let headerRead = false;
+
+    try {
+        while (active()) {
+            // Apply backpressure so memory stays flat for long games
+            while (active() && frames.length > REPLAY_BUFFER_FRAMES) {
+                await new Promise(r => setTimeout(r, REPLAY_TICK_MS * 10));
+            }
+
+            const { value, done: streamDone } = await reader.read();
+            if (streamDone) break;
+
+            const merged = new Uint8Array(buffer.length + value.length);
+            merged.set(buffer);
+            merged.set(value, buffer.length);
+            buffer = merged;
+
+            const view = new DataView(buffer.buffer, buffer.byteOffset, buffer.byteLength);
+            let offset = 0;
+
+            if (!headerRead) {
+                if (buffer.length < 14) continue;
+                if (view.getUint32(0) !== RECORDING_MAGIC) throw new Error("Not a recording");
+                offset = 14; // magic, version, startedAt
+                headerRead = true;
+            }
+
+            let record;
+            while ((record = readRecord(view, offset, names)) !== null) {
+                offset = record.offset;
+                if (record.frame) frames.push(record.frame);
+            }
+            buffer = buffer.slice(offset);
+        }
+    } catch (err) {
+        console.error("Failed to play recording", err);
+        setReplayStatus('Replay ended early: the recording could not be read.');
+    } finally {
+        reader.cancel().catch(() => { });
+        done = true;
+    }
+}
+
+function stopReplay() {
+    if (!replaying) return;
+    // The playback timer and stream reader see this and shut themselves down
+    replaying = false;
+    gameState = null;
+    document.getElementById('stop-replay-btn').classList.add('hidden');
+    showScreen('end-screen');
+}
+
+function setReplayStatus(message) {
+    const status = document.getElementById('replay-status');
+    status.innerText = message;
+    status.classList.toggle('hidden', !message);
+}
+
+// Returns { offset, frame } for the record at offset, or null if it is not fully buffered yet
+function readRecord(view, offset, names) {
+    const end = view.byteLength;
+    if (offset + 1 > end) return null;
+    const type = String.fromCharCode(view.getUint8(offset));
+    let o = offset + 1;
+
+    if (type === 'E') {
+        return null;
+    }
+
+    if (type === 'P') {
+        if (o + 3 > end) return null;
+        const index = view.getUint8(o);
+        const len = view.getUint16(o + 1);
+        o += 3;
+        if (o + len > end) return null;
+        names[index] = new TextDecoder().decode(new Uint8Array(view.buffer, view.byteOffset + o, len));
+        return { offset: o + len, frame: null };
+    }
+
+    // 'T' tick record
+    if (o + 9 > end) return null;
+    const frame = { gameState: 'PLAYING', scrollOffset: view.getFloat32(o + 4), players: {}, stairs: [], items: [] };
+    const playerCount = view.getUint8(o + 8);
+    o += 9;
+
+    if (o + playerCount * 21 + 2 > end) return null;
+    for (let i = 0; i < playerCount; i++) {
+        const index = view.getUint8(o);
+        const flags = view.getUint8(o + 20);
+        frame.players[index] = {
+            name: names[index],
+            x: view.getFloat32(o + 1),
+            y: view.getFloat32(o + 5),
+            width: view.getFloat32(o + 9),
+            height: view.getFloat32(o + 13),
+            hp: view.getUint8(o + 17),
+            floor: view.getUint16(o + 18),
+            dead: (flags & 1) !== 0,
+            movingLeft: (flags & 2) !== 0,
+            movingRight: (flags & 4) !== 0
+        };
+        o += 21;
+    }
+
+    const stairCount = view.getUint16(o);
+    o += 2;
+    if (o + stairCount * 13 + 2 > end) return null;
+    for (let i = 0; i < stairCount; i++) {
+        frame.stairs.push({
+            x: view.getFloat32(o),
+            y: view.getFloat32(o + 4),
+            width: view.getFloat32(o + 8),
+            type: STAIR_TYPES[view.getUint8(o + 12)]
+        });
+        o += 13;
+    }
+
+    const itemCount = view.getUint16(o);
+    o += 2;
+    if (o + itemCount * 17 > end) return null;
+    for (let i = 0; i < itemCount; i++) {
+        frame.items.push({
+            x: view.getFloat32(o),
+            y: view.getFloat32(o + 4),
+            width: view.getFloat32(o + 8),
+            height: view.getFloat32(o + 12),
+            type: ITEM_TYPES[view.getUint8(o + 16)]
+        });
+        o += 17;
+    }
+
+    return { offset: o, frame: frame };
+}
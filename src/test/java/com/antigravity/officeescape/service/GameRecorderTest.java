@@ -0,0 +1,215 @@
+package com.antigravity.officeescape.service;
+
+import com.antigravity.officeescape.model.Item;
+import com.antigravity.officeescape.model.ItemType;
+import com.antigravity.officeescape.model.Player;
+import com.antigravity.officeescape.model.Room;
+import com.antigravity.officeescape.model.Stair;
+import com.antigravity.officeescape.model.StairType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The decoder below mirrors readRecord() in static/js/game.js; keep the two in sync with the file layout.
+ */
+class GameRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    private GameRecorder recorder;
+    private boolean started;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (started) {
+            recorder.shutdown();
+        }
+    }
+
+    @Test
+    void recordsTicksAndPlayersJoiningMidGame() throws Exception {
+        startRecorder(new GameRecorder(dir.toString()));
+
+        Room room = new Room("ABC123");
+        Player alice = new Player("s1", "Alice");
+        room.addPlayer(alice);
+        room.getStairs().add(new Stair(300, 300, 200, StairType.SPIKE));
+        room.getItems().add(new Item("i1", 10, 20, 30, 30, ItemType.GROWTH_POTION));
+        room.setScrollOffset(12.5);
+
+        String id = recorder.start(room);
+        assertNotNull(id);
+        assertTrue(id.matches("ABC123-[0-9]+"));
+
+        recorder.recordTick(room);
+
+        Player bob = new Player("s2", "Bob");
+        bob.setDead(true);
+        room.addPlayer(bob);
+        alice.setMovingLeft(true);
+        alice.setHp(7);
+        alice.setFloor(3);
+        room.getItems().clear();
+        recorder.recordTick(room);
+
+        recorder.finish("ABC123");
+
+        assertEquals(Arrays.asList(
+                "P0 Alice",
+                "T0 scroll=12.5 players=[0:200.0,100.0,30.0,30.0,hp10,f0,flags0]"
+                        + " stairs=[300.0,300.0,200.0,SPIKE] items=[10.0,20.0,30.0,30.0,GROWTH_POTION]",
+                "P1 Bob",
+                "T1 scroll=12.5 players=[0:200.0,100.0,30.0,30.0,hp7,f3,flags2 1:200.0,100.0,30.0,30.0,hp10,f0,flags1]"
+                        + " stairs=[300.0,300.0,200.0,SPIKE] items=[]",
+                "E"), decode(awaitRecording(id)));
+        assertEquals(Collections.singletonList(id), recorder.listRecordings());
+    }
+
+    @Test
+    void startReturnsNullWhenOpenFrameIsDropped() {
+        // Writer not started, so the single slot stays taken
+        recorder = new GameRecorder(dir.toString(), 1);
+
+        assertNotNull(recorder.start(new Room("AAA111")));
+        assertNull(recorder.start(new Room("BBB222")));
+    }
+
+    @Test
+    void redeclaresPlayerAfterDroppedFrame() throws Exception {
+        recorder = new GameRecorder(dir.toString(), 2);
+
+        Room room = new Room("ABC123");
+        room.addPlayer(new Player("s1", "Alice"));
+        String id = recorder.start(room);
+        recorder.recordTick(room);
+
+        // Queue is full, so the frame declaring Bob is dropped
+        room.addPlayer(new Player("s2", "Bob"));
+        recorder.recordTick(room);
+
+        startRecorder(recorder);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recorder.pendingFrames() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        recorder.recordTick(room);
+        recorder.finish("ABC123");
+
+        List<String> records = new ArrayList<>();
+        for (String record : decode(awaitRecording(id))) {
+            records.add(record.startsWith("T") ? record.substring(0, record.indexOf(" scroll")) : record);
+        }
+        assertEquals(Arrays.asList("P0 Alice", "T0", "P1 Bob", "T2", "E"), records);
+    }
+
+    @Test
+    void deletesStalePartFilesOnStartup() throws Exception {
+        Path stale = Files.createFile(dir.resolve("OLD111-1.rec.part"));
+        Files.createFile(dir.resolve("OLD222-2.rec"));
+
+        startRecorder(new GameRecorder(dir.toString()));
+
+        assertFalse(Files.exists(stale));
+        assertEquals(Collections.singletonList("OLD222-2"), recorder.listRecordings());
+    }
+
+    private void startRecorder(GameRecorder gameRecorder) throws IOException {
+        recorder = gameRecorder;
+        recorder.init();
+        started = true;
+    }
+
+    private File awaitRecording(String id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        File file;
+        while ((file = recorder.getRecording(id)) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(file, "recording was not saved");
+        return file;
+    }
+
+    private static List<String> decode(File file) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+            assertEquals(0x4F455243, in.readInt());
+            assertEquals(1, in.readShort());
+            in.readLong(); // startedAt
+
+            while (true) {
+                int type = in.read();
+                if (type == 'E') {
+                    records.add("E");
+                    assertEquals(-1, in.read(), "data after end marker");
+                    return records;
+                } else if (type == 'P') {
+                    int index = in.readUnsignedByte();
+                    byte[] name = new byte[in.readUnsignedShort()];
+                    in.readFully(name);
+                    records.add("P" + index + " " + new String(name, StandardCharsets.UTF_8));
+                } else if (type == 'T') {
+                    records.add(decodeTick(in));
+                } else {
+                    throw new EOFException("unexpected record " + type);
+                }
+            }
+        }
+    }
+
+    private static String decodeTick(DataInputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append('T').append(in.readInt()).append(" scroll=").append(in.readFloat());
+
+        // Player order follows the room's map, so sort by index
+        TreeMap<Integer, String> players = new TreeMap<>();
+        int playerCount = in.readUnsignedByte();
+        for (int i = 0; i < playerCount; i++) {
+            int index = in.readUnsignedByte();
+            players.put(index, index + ":" + in.readFloat() + "," + in.readFloat() + "," + in.readFloat() + ","
+                    + in.readFloat() + ",hp" + in.readUnsignedByte() + ",f" + in.readUnsignedShort()
+                    + ",flags" + in.readUnsignedByte());
+        }
+        sb.append(" players=[").append(String.join(" ", players.values())).append(']');
+
+        List<String> stairs = new ArrayList<>();
+        int stairCount = in.readUnsignedShort();
+        for (int i = 0; i < stairCount; i++) {
+            stairs.add(in.readFloat() + "," + in.readFloat() + "," + in.readFloat() + ","
+                    + StairType.values()[in.readUnsignedByte()]);
+        }
+        sb.append(" stairs=[").append(String.join(" ", stairs)).append(']');
+
+        List<String> items = new ArrayList<>();
+        int itemCount = in.readUnsignedShort();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(in.readFloat() + "," + in.readFloat() + "," + in.readFloat() + "," + in.readFloat() + ","
+                    + ItemType.values()[in.readUnsignedByte()]);
+        }
+        sb.append(" items=[").append(String.join(" ", items)).append(']');
+        return sb.toString();
+    }
+}